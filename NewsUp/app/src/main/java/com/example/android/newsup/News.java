@@ -1,5 +1,7 @@
 package com.example.android.newsup;
 
+import android.text.Html;
+
 /**
  * News Up created by JCoupier on 19/06/2017.
  *
@@ -19,6 +21,12 @@ public class News {
     // Url for the link to the guardian website page
     private String mWebUrl;
 
+    // Raw HTML of the trail text, as returned by the API (null if it was not requested)
+    private String mRawTrailText;
+
+    // Trail text decoded from mRawTrailText the first time it is needed
+    private CharSequence mTrailText;
+
     /**
      * Constructs a new {@link News} object.
      *
@@ -34,6 +42,22 @@ public class News {
         mWebUrl = webUrl;
     }
 
+    /**
+     * Constructs a new {@link News} object with its trail text. The trail text is kept as
+     * the raw HTML returned by the API and only decoded when it is displayed.
+     *
+     * @param title is the title of the news
+     * @param sectionName is hte section name of the news
+     * @param imageUrl is the url for the thumbnail of the news
+     * @param webUrl is the url for the link to the page at the guardian website of the news
+     * @param rawTrailText is the raw HTML of the trail text of the news, or null
+     */
+    public News (String title, String sectionName, String imageUrl, String webUrl,
+                 String rawTrailText){
+        this(title, sectionName, imageUrl, webUrl);
+        mRawTrailText = rawTrailText;
+    }
+
     public String getTitle() {
         return mTitle;
     }
@@ -49,4 +73,23 @@ public class News {
     public String getWebUrl() {
         return mWebUrl;
     }
+
+    /**
+     * Returns the trail text of the news, decoded from HTML on the first call,
+     * or null if the trail text was not requested.
+     */
+    @SuppressWarnings("deprecation")
+    public CharSequence getTrailText() {
+        if (mTrailText == null && mRawTrailText != null) {
+            mTrailText = Html.fromHtml(mRawTrailText);
+        }
+        return mTrailText;
+    }
+
+    /**
+     * Returns the trail text as returned by the API, without decoding it.
+     */
+    public String getRawTrailText() {
+        return mRawTrailText;
+    }
 }
@@ -4,19 +4,19 @@ import android.app.LoaderManager;
 import android.content.Context;
 import android.content.Intent;
 import android.content.Loader;
-import android.content.SharedPreferences;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
 import android.net.Uri;
-import android.preference.PreferenceManager;
 import android.support.v4.widget.SwipeRefreshLayout;
 import android.support.v7.app.AppCompatActivity;
+import android.os.Build;
 import android.os.Bundle;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 
@@ -28,12 +28,6 @@ import java.util.List;
  */
 public class NewsActivity extends AppCompatActivity implements LoaderManager.LoaderCallbacks<List<News>> {
 
-    /** URL for news data from the Guardian API dataset */
-    private static final String QUERY_URL = "https://content.guardianapis.com/search";
-
-    // API key which is needed to access content from the API
-    private static final String URL_KEY = "test";
-
     private SwipeRefreshLayout mSwipeContainer;
 
     private RecyclerView mRecyclerView;
@@ -72,6 +66,19 @@ public class NewsActivity extends AppCompatActivity implements LoaderManager.Loa
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_news);
 
+        // Record the first frame of the startup trace
+        if (StartupTrace.isEnabled()) {
+            final View decorView = getWindow().getDecorView();
+            decorView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+                @Override
+                public boolean onPreDraw() {
+                    decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+                    StartupTrace.markFirstFrame();
+                    return true;
+                }
+            });
+        }
+
         // Lookup the swipe container view
         mSwipeContainer = (SwipeRefreshLayout) findViewById(R.id.swipe_container);
         // Setup refresh listener which triggers new data loading
@@ -137,26 +144,12 @@ public class NewsActivity extends AppCompatActivity implements LoaderManager.Loa
 
     @Override
     public Loader<List<News>> onCreateLoader(int i, Bundle bundle) {
-        // Read the user's preferences
-        SharedPreferences sharedPreferences = PreferenceManager.getDefaultSharedPreferences(this);
-        String order = sharedPreferences.getString(getString(R.string.settings_order_by_key),
-                getString(R.string.settings_order_default));
-        String subject = sharedPreferences.getString(getString(R.string.settings_subject_key),
-                getString(R.string.settings_subject_default));
-
         // Hide RecyclerView
         mRecyclerView.setVisibility(View.GONE);
 
-        // Set the URI builder with the query url
-        Uri baseUri = Uri.parse(QUERY_URL);
-        Uri.Builder uriBuilder = baseUri.buildUpon();
-        // Append components of the final url
-        uriBuilder.appendQueryParameter("q", subject);
-        uriBuilder.appendQueryParameter("show-fields", "thumbnail");
-        uriBuilder.appendQueryParameter("order-by", order);
-        uriBuilder.appendQueryParameter("api-key", URL_KEY);
-
-        return new NewsLoader(this, uriBuilder.toString());
+        // The user's preferences are read and the query url is built by the loader,
+        // on its background thread
+        return new NewsLoader(this, NewsExecutor.PRIORITY_USER);
     }
 
     @Override
@@ -175,6 +168,12 @@ public class NewsActivity extends AppCompatActivity implements LoaderManager.Loa
             mAdapter.addAll(news);
             // Call setRefreshing(false) to signal the refresh is finished
             mSwipeContainer.setRefreshing(false);
+            // Record the first content of the startup trace, and report it to the system
+            // so that it shows up as "Fully drawn" in the ActivityManager logs
+            if (StartupTrace.markFirstContent()
+                    && Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+                reportFullyDrawn();
+            }
         } else {
             // Set empty state text to display "No corresponding news found."
             mEmptyStateTextView.setText(R.string.no_news);
@@ -0,0 +1,45 @@
+package com.example.android.newsup;
+
+import android.app.Application;
+import android.os.Process;
+import android.os.StrictMode;
+import android.preference.PreferenceManager;
+
+import com.squareup.picasso.Picasso;
+
+/**
+ * Application class which keeps the main thread free during startup: the preferences
+ * and Picasso are initialized on a background thread instead of on the first bind.
+ */
+public class NewsApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        StartupTrace.markStart();
+
+        // In debug builds, log every disk or network access made on the main thread
+        if (BuildConfig.DEBUG) {
+            StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                    .detectDiskReads()
+                    .detectDiskWrites()
+                    .detectNetwork()
+                    .penaltyLog()
+                    .build());
+            StrictMode.setVmPolicy(new StrictMode.VmPolicy.Builder()
+                    .detectLeakedClosableObjects()
+                    .penaltyLog()
+                    .build());
+        }
+
+        // Warm up the preferences file and the Picasso singleton off the main thread
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                PreferenceManager.getDefaultSharedPreferences(NewsApplication.this).getAll();
+                Picasso.with(NewsApplication.this);
+            }
+        }, "NewsUp-warm-up").start();
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.android.newsup;
+
+import android.os.Process;
+import android.support.annotation.NonNull;
+
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dedicated worker pool for the news fetches, so they no longer queue behind the shared
+ * serial AsyncTask executor. Tasks are run by priority (user-initiated work before
+ * background prefetch), the queue is bounded and the queue depth and wait times are recorded.
+ *
+ * The app has no background client yet: only the user fetches of {@link NewsLoader} are
+ * submitted, so a full queue simply rejects new tasks instead of dropping queued ones.
+ */
+public final class NewsExecutor {
+
+    /** Priority of the work the user is waiting for (first load, swipe to refresh) */
+    public static final int PRIORITY_USER = 0;
+
+    /** Priority of the work nobody is waiting for (prefetch), not used by the app yet */
+    public static final int PRIORITY_BACKGROUND = 10;
+
+    // Number of worker threads
+    private static final int POOL_SIZE = 3;
+
+    // Maximum number of tasks waiting in the queue
+    private static final int MAX_QUEUE_SIZE = 16;
+
+    // Idle time after which a worker thread is stopped, in seconds
+    private static final int KEEP_ALIVE_SECONDS = 30;
+
+    private static NewsExecutor sInstance;
+
+    private final PriorityBlockingQueue<Runnable> mQueue = new PriorityBlockingQueue<>();
+    private final ThreadPoolExecutor mExecutor;
+
+    private final int mMaxQueueSize;
+
+    // Sequence number so that tasks of the same priority run in submission order
+    private long mSequence;
+
+    // Statistics, guarded by this
+    private int mMaxQueueDepth;
+    private long mExecutedCount;
+    private long mRejectedCount;
+    private long mTotalWaitMs;
+    private long mMaxWaitMs;
+
+    public static synchronized NewsExecutor getInstance() {
+        if (sInstance == null) {
+            sInstance = new NewsExecutor(POOL_SIZE, MAX_QUEUE_SIZE);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Constructs a new {@link NewsExecutor}. Only the tests create their own instances,
+     * the app uses {@link #getInstance()}.
+     */
+    NewsExecutor(int poolSize, int maxQueueSize) {
+        mMaxQueueSize = maxQueueSize;
+        mExecutor = new ThreadPoolExecutor(poolSize, poolSize, KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, mQueue, new WorkerThreadFactory()) {
+            @Override
+            protected void beforeExecute(Thread thread, Runnable runnable) {
+                super.beforeExecute(thread, runnable);
+                recordStart((PriorityTask<?>) runnable);
+            }
+        };
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queues a task with the given priority (lower values run first).
+     *
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public synchronized <T> Future<T> submit(int priority, Callable<T> callable) {
+        if (mQueue.size() >= mMaxQueueSize) {
+            mRejectedCount++;
+            throw new RejectedExecutionException("News queue is full");
+        }
+        PriorityTask<T> task = new PriorityTask<>(callable, priority, mSequence++);
+        mExecutor.execute(task);
+        mMaxQueueDepth = Math.max(mMaxQueueDepth, mQueue.size());
+        return task;
+    }
+
+    /**
+     * Cancels a task returned by {@link #submit(int, Callable)} and removes it from the queue,
+     * so that it no longer takes a slot. A task which is already running is left to finish.
+     *
+     * @return true if the task was cancelled before it ran
+     */
+    public synchronized boolean cancel(Future<?> task) {
+        boolean cancelled = task.cancel(false);
+        if (task instanceof Runnable) {
+            mExecutor.remove((Runnable) task);
+        }
+        return cancelled;
+    }
+
+    private synchronized void recordStart(PriorityTask<?> task) {
+        // A cancelled task is skipped by its run() method, it does not count as executed
+        if (task.isCancelled()) {
+            return;
+        }
+        long waitMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - task.mEnqueueTime);
+        mExecutedCount++;
+        mTotalWaitMs += waitMs;
+        mMaxWaitMs = Math.max(mMaxWaitMs, waitMs);
+    }
+
+    /**
+     * Returns a snapshot of the queue depth and wait time statistics.
+     */
+    public synchronized Stats getStats() {
+        return new Stats(mQueue.size(), mMaxQueueDepth, mExecutedCount, mRejectedCount,
+                mExecutedCount == 0 ? 0 : mTotalWaitMs / mExecutedCount, mMaxWaitMs);
+    }
+
+    /**
+     * Stops the worker threads. Only used by the tests, the app instance lives as long as
+     * the process.
+     */
+    void shutdownNow() {
+        mExecutor.shutdownNow();
+    }
+
+    /**
+     * Snapshot of the {@link NewsExecutor} statistics.
+     */
+    public static class Stats {
+
+        public final int queueDepth;
+        public final int maxQueueDepth;
+        public final long executedCount;
+        public final long rejectedCount;
+        public final long averageWaitMs;
+        public final long maxWaitMs;
+
+        Stats(int queueDepth, int maxQueueDepth, long executedCount, long rejectedCount,
+              long averageWaitMs, long maxWaitMs) {
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+            this.executedCount = executedCount;
+            this.rejectedCount = rejectedCount;
+            this.averageWaitMs = averageWaitMs;
+            this.maxWaitMs = maxWaitMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "queue=%d (max %d), executed=%d, rejected=%d, wait avg=%dms max=%dms",
+                    queueDepth, maxQueueDepth, executedCount, rejectedCount,
+                    averageWaitMs, maxWaitMs);
+        }
+    }
+
+    // A task ordered by priority, then by submission order
+    private static class PriorityTask<T> extends FutureTask<T> implements Comparable<PriorityTask<?>> {
+
+        private final int mPriority;
+        private final long mSequence;
+        private final long mEnqueueTime = System.nanoTime();
+
+        PriorityTask(Callable<T> callable, int priority, long sequence) {
+            super(callable);
+            mPriority = priority;
+            mSequence = sequence;
+        }
+
+        @Override
+        public int compareTo(@NonNull PriorityTask<?> other) {
+            if (mPriority != other.mPriority) {
+                return mPriority < other.mPriority ? -1 : 1;
+            }
+            return mSequence < other.mSequence ? -1 : (mSequence == other.mSequence ? 0 : 1);
+        }
+    }
+
+    // Creates named worker threads running with background priority
+    private static class WorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger mCount = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(@NonNull final Runnable runnable) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, "NewsUp-worker-" + mCount.getAndIncrement());
+        }
+    }
+}
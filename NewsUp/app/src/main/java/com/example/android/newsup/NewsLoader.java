@@ -1,45 +1,195 @@
 package com.example.android.newsup;
 
-import android.content.AsyncTaskLoader;
 import android.content.Context;
+import android.content.Loader;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.preference.PreferenceManager;
+import android.util.Log;
 
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * News Up created by JCoupier on 19/06/2017.
  *
- * Loads a list of news by using an AsyncTask to perform the
- * network request to the given URL.
+ * Loads a list of news by running the network request on the {@link NewsExecutor} worker pool.
+ * The result is kept by the loader, so it is delivered again without refetching when the
+ * activity is recreated (e.g. after a rotation). A change of the subject or order settings
+ * triggers a new fetch.
  */
-public class NewsLoader extends AsyncTaskLoader<List<News>> {
+public class NewsLoader extends Loader<List<News>> {
 
-    /** Query URL */
-    private String mQueryUrl;
+    /** Tag for the log messages */
+    private static final String LOG_TAG = NewsLoader.class.getSimpleName();
+
+    // Handler used to deliver the results on the main thread
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    // Priority of the fetch in the NewsExecutor
+    private final int mPriority;
+
+    // Base url of the requests, the Guardian API except in the tests
+    private final String mBaseUrl;
+
+    // Last list of news loaded
+    private List<News> mNews;
+
+    // Task currently running or queued, null if none
+    private Future<List<News>> mTask;
+
+    // Incremented each time a task is queued or cancelled, so stale results can be dropped
+    private int mGeneration;
+
+    // Preferences watched for changes of the query, null while not registered
+    private SharedPreferences mPreferences;
+
+    // Marks the content as changed when the subject or order settings change. Kept in a field
+    // because SharedPreferences only holds a weak reference to its listeners.
+    private final SharedPreferences.OnSharedPreferenceChangeListener mPreferenceListener =
+            new SharedPreferences.OnSharedPreferenceChangeListener() {
+                @Override
+                public void onSharedPreferenceChanged(SharedPreferences preferences, String key) {
+                    Context context = getContext();
+                    if (context.getString(R.string.settings_subject_key).equals(key)
+                            || context.getString(R.string.settings_order_by_key).equals(key)) {
+                        // Refetches now if started, otherwise on the next onStartLoading()
+                        onContentChanged();
+                    }
+                }
+            };
 
     /**
      * Constructs a new {@link NewsLoader}.
      *
      * @param context of the activity
-     * @param queryUrl to load data from
+     * @param priority of the fetch, one of the NewsExecutor PRIORITY_ constants
+     */
+    public NewsLoader(Context context, int priority) {
+        this(context, priority, NewsUtils.QUERY_URL);
+    }
+
+    /**
+     * Constructs a new {@link NewsLoader} requesting the given base url instead of the
+     * Guardian API, so that the tests can point it at a local server.
      */
-    public NewsLoader(Context context, String queryUrl) {
+    NewsLoader(Context context, int priority, String baseUrl) {
         super(context);
-        mQueryUrl = queryUrl;
+        mPriority = priority;
+        mBaseUrl = baseUrl;
     }
 
     @Override
     protected void onStartLoading() {
-        forceLoad();
+        if (mPreferences == null) {
+            mPreferences = PreferenceManager.getDefaultSharedPreferences(getContext());
+            mPreferences.registerOnSharedPreferenceChangeListener(mPreferenceListener);
+        }
+
+        // Deliver the news already loaded, unless the settings changed since they were loaded,
+        // and only fetch them if there are none yet or if the settings changed
+        boolean contentChanged = takeContentChanged();
+        if (mNews != null && !contentChanged) {
+            deliverResult(mNews);
+        }
+        if (contentChanged || mNews == null) {
+            forceLoad();
+        }
+    }
+
+    @Override
+    protected void onForceLoad() {
+        cancelTask();
+        try {
+            mTask = NewsExecutor.getInstance().submit(mPriority, new FetchCallable(mGeneration));
+        } catch (RejectedExecutionException e) {
+            Log.e(LOG_TAG, "Problem queuing the news request.", e);
+            deliverResult(null);
+        }
+    }
+
+    @Override
+    protected boolean onCancelLoad() {
+        return cancelTask();
+    }
+
+    @Override
+    protected void onAbandon() {
+        // onCancelLoad() only exists from API 16: on API 15 restartLoader() abandons the
+        // previous loader without cancelling it, so its task is dequeued here
+        cancelTask();
+    }
+
+    @Override
+    protected void onReset() {
+        cancelTask();
+        mNews = null;
+        if (mPreferences != null) {
+            mPreferences.unregisterOnSharedPreferenceChangeListener(mPreferenceListener);
+            mPreferences = null;
+        }
+    }
+
+    private boolean cancelTask() {
+        mGeneration++;
+        if (mTask == null) {
+            return false;
+        }
+        // Also removes the task from the queue, so it does not take a slot while waiting
+        boolean cancelled = NewsExecutor.getInstance().cancel(mTask);
+        mTask = null;
+        return cancelled;
     }
 
     /**
-     * This is on a background thread.
+     * Called on the main thread when a fetch completes.
      */
-    @Override
-    public List<News> loadInBackground() {
-        if (mQueryUrl == null) {
-            return null;
+    private void onFetchFinished(int generation, List<News> news) {
+        // Drop the results of a task which has been cancelled or replaced in the meantime
+        if (generation != mGeneration || isReset()) {
+            return;
+        }
+        mTask = null;
+        mNews = news;
+        if (BuildConfig.DEBUG) {
+            Log.d(LOG_TAG, "Executor stats: " + NewsExecutor.getInstance().getStats());
+        }
+        if (isStarted()) {
+            deliverResult(news);
+        }
+    }
+
+    // Fetches the news on a worker thread and posts them back to the main thread
+    private class FetchCallable implements Callable<List<News>> {
+
+        // Generation of the loader when this task was queued
+        private final int mTaskGeneration;
+
+        FetchCallable(int generation) {
+            mTaskGeneration = generation;
+        }
+
+        @Override
+        public List<News> call() {
+            // Read the user's preferences and build the query url here rather than on the main thread
+            String queryUrl = NewsUtils.buildQueryUrl(getContext(), mBaseUrl,
+                    NewsProjection.LIST);
+            List<News> news = queryUrl == null ? null
+                    : NewsUtils.fetchNewsData(queryUrl, NewsProjection.LIST);
+            postResult(news);
+            return news;
+        }
+
+        private void postResult(final List<News> news) {
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    onFetchFinished(mTaskGeneration, news);
+                }
+            });
         }
-        return NewsUtils.fetchNewsData(mQueryUrl);
     }
 }
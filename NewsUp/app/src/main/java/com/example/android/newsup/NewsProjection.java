@@ -0,0 +1,84 @@
+package com.example.android.newsup;
+
+import android.net.Uri;
+
+/**
+ * {@link NewsProjection} lists the optional fields and tags a screen needs from the
+ * Guardian API, so that only those are requested through "show-fields" and "show-tags".
+ */
+public final class NewsProjection {
+
+    // Optional fields of the Guardian API used by the app
+    public static final String FIELD_THUMBNAIL = "thumbnail";
+    public static final String FIELD_TRAIL_TEXT = "trailText";
+
+    /** Projection of the news list: each row only displays the thumbnail */
+    public static final NewsProjection LIST = new NewsProjection(
+            new String[]{FIELD_THUMBNAIL}, new String[0]);
+
+    private final String[] mFields;
+    private final String[] mTags;
+
+    /**
+     * Constructs a new {@link NewsProjection}.
+     *
+     * @param fields are the values of the "show-fields" parameter
+     * @param tags are the values of the "show-tags" parameter
+     */
+    public NewsProjection(String[] fields, String[] tags) {
+        mFields = fields.clone();
+        mTags = tags.clone();
+    }
+
+    /**
+     * Returns true if the given optional field is part of this projection.
+     */
+    public boolean hasField(String field) {
+        for (String projected : mFields) {
+            if (projected.equals(field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the value of the "show-fields" parameter, or null if no field is needed.
+     */
+    public String getShowFields() {
+        return join(mFields);
+    }
+
+    /**
+     * Returns the value of the "show-tags" parameter, or null if no tag is needed.
+     */
+    public String getShowTags() {
+        return join(mTags);
+    }
+
+    /**
+     * Appends the "show-fields" and "show-tags" parameters to the given URI builder.
+     * Parameters without any value are left out, so nothing extra is returned by the API.
+     */
+    public void appendTo(Uri.Builder uriBuilder) {
+        String showFields = getShowFields();
+        if (showFields != null) {
+            uriBuilder.appendQueryParameter("show-fields", showFields);
+        }
+        String showTags = getShowTags();
+        if (showTags != null) {
+            uriBuilder.appendQueryParameter("show-tags", showTags);
+        }
+    }
+
+    private static String join(String[] values) {
+        if (values.length == 0) {
+            return null;
+        }
+        StringBuilder joined = new StringBuilder(values[0]);
+        for (int i = 1; i < values.length; i++) {
+            joined.append(',').append(values[i]);
+        }
+        return joined.toString();
+    }
+}
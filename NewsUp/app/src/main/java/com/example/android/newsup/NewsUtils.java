@@ -1,16 +1,18 @@
 package com.example.android.newsup;
 
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.preference.PreferenceManager;
 import android.text.TextUtils;
+import android.util.JsonReader;
 import android.util.Log;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -28,6 +30,12 @@ public final class NewsUtils {
     /** Tag for the log messages */
     private static final String LOG_TAG = NewsUtils.class.getSimpleName();
 
+    /** URL for news data from the Guardian API dataset */
+    static final String QUERY_URL = "https://content.guardianapis.com/search";
+
+    // API key which is needed to access content from the API
+    private static final String URL_KEY = "test";
+
     // Constant keys
     private static final String KEY_RESPONSE = "response";
     private static final String KEY_RESULTS = "results";
@@ -35,7 +43,8 @@ public final class NewsUtils {
     private static final String KEY_SECTION_NAME = "sectionName";
     private static final String KEY_WEB_URL = "webUrl";
     private static final String KEY_FIELDS = "fields";
-    private static final String KEY_THUMBNAIL = "thumbnail";
+    private static final String KEY_THUMBNAIL = NewsProjection.FIELD_THUMBNAIL;
+    private static final String KEY_TRAIL_TEXT = NewsProjection.FIELD_TRAIL_TEXT;
 
     /**
      * Create a private constructor because no one should ever create a {@link NewsUtils} object.
@@ -45,11 +54,49 @@ public final class NewsUtils {
     private NewsUtils() {
     }
 
+    /**
+     * Build the query url from the user's preferences, requesting only the optional fields
+     * of the given projection. Reading the preferences may hit the disk, so this should not
+     * be called on the main thread.
+     */
+    public static String buildQueryUrl(Context context, NewsProjection projection) {
+        return buildQueryUrl(context, QUERY_URL, projection);
+    }
+
+    /**
+     * Build the query url against the given base url instead of the Guardian API,
+     * so that the tests can point the requests at a local server.
+     */
+    static String buildQueryUrl(Context context, String baseUrl, NewsProjection projection) {
+        // Read the user's preferences
+        SharedPreferences sharedPreferences = PreferenceManager.getDefaultSharedPreferences(context);
+        String order = sharedPreferences.getString(context.getString(R.string.settings_order_by_key),
+                context.getString(R.string.settings_order_default));
+        String subject = sharedPreferences.getString(context.getString(R.string.settings_subject_key),
+                context.getString(R.string.settings_subject_default));
+
+        // Set the URI builder with the query url
+        Uri baseUri = Uri.parse(baseUrl);
+        Uri.Builder uriBuilder = baseUri.buildUpon();
+        // Append components of the final url
+        uriBuilder.appendQueryParameter("q", subject);
+        projection.appendTo(uriBuilder);
+        uriBuilder.appendQueryParameter("order-by", order);
+        uriBuilder.appendQueryParameter("api-key", URL_KEY);
+
+        return uriBuilder.toString();
+    }
+
     /**
      * Return a list of {@link News} objects that has been built up from
      * parsing the given JSON response.
+     *
+     * The response is read as a stream: the per-result metadata the app does not display and
+     * the optional fields outside of the given projection are skipped without being built.
+     * The trail text is kept as the raw HTML returned by the API, {@link News} only decodes it
+     * when it is displayed.
      */
-    private static List<News> extractFeatureFromJson(String newsJSON) {
+    static List<News> extractFeatureFromJson(String newsJSON, NewsProjection projection) {
         // If the JSON string is empty or null, then return early.
         if (TextUtils.isEmpty(newsJSON)) {
             return null;
@@ -59,85 +106,99 @@ public final class NewsUtils {
         List<News> newsList = new ArrayList<>();
 
         // Try to parse the JSON response string. If there's a problem with the way the JSON
-        // is formatted, a JSONException exception object will be thrown.
-        // Catch the exception so the app doesn't crash, and print the error message to the logs.
+        // is formatted, an IOException (malformed JSON) or an IllegalStateException (unexpected
+        // token) will be thrown. Catch the exception so the app doesn't crash, and print the
+        // error message to the logs.
+        JsonReader reader = new JsonReader(new StringReader(newsJSON));
         try {
-
-            // Create a JSONObject from the JSON response string
-            JSONObject baseJsonResponse = new JSONObject(newsJSON);
-
-            if (baseJsonResponse.has(KEY_RESPONSE)) {
-                JSONObject responseObject = baseJsonResponse.getJSONObject(KEY_RESPONSE);
-                if (responseObject.has(KEY_RESULTS)) {
-                    // Extract the JSONArray associated with the key called "results",
-                    // which represents a list of results (or news).
-                    JSONArray newsArray = responseObject.getJSONArray(KEY_RESULTS);
-
-                    // For each news in the newsArray, create an {@link News} object
-                    for (int i = 0; i < newsArray.length(); i++) {
-
-                        // Get a single news at position i within the list of news
-                        JSONObject currentNews = newsArray.getJSONObject(i);
-
-                        // Extract the value for the key called "webTitle"
-                        String title;
-                        if (currentNews.has(KEY_WEB_TITLE)) {
-                            title = currentNews.getString(KEY_WEB_TITLE);
-                        } else {
-                            // Handle the case if there is no title
-                            title = ("No title found");
-                        }
-
-                        // Extract the value for the key called "sectionName"
-                        String sectionName;
-                        if (currentNews.has(KEY_SECTION_NAME)) {
-                            sectionName = currentNews.getString(KEY_SECTION_NAME);
-                        } else {
-                            // Handle the case if there is no section name
-                            sectionName = ("No section name found");
-                        }
-
-                        // Extract the value for the key called "webUrl"
-                        String webUrl;
-                        if (currentNews.has(KEY_WEB_URL)) {
-                            webUrl = currentNews.getString(KEY_WEB_URL);
-                        } else {
-                            // Handle the case if there is no webUrl
-                            webUrl = ("No website link found");
-                        }
-
-                        // Extract the value for the key called "thumbnail" in the JSONObject "fields"
-                        JSONObject imageLinks;
-                        String imageUrl;
-                        if (currentNews.has(KEY_FIELDS)) {
-                            imageLinks = currentNews.getJSONObject(KEY_FIELDS);
-                            if (imageLinks.has(KEY_THUMBNAIL)) {
-                                imageUrl = imageLinks.getString(KEY_THUMBNAIL);
-                            } else {
-                                // Handle the case if there is no image available
-                                imageUrl = ("No image found");
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (KEY_RESPONSE.equals(reader.nextName())) {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        if (KEY_RESULTS.equals(reader.nextName())) {
+                            // Read the array associated with the key called "results",
+                            // which represents a list of results (or news).
+                            reader.beginArray();
+                            while (reader.hasNext()) {
+                                newsList.add(readNews(reader, projection));
                             }
+                            reader.endArray();
                         } else {
-                            // Handle the case if there is no field as there is no image result
-                            imageUrl = ("No image found");
+                            reader.skipValue();
                         }
-
-                        // Create a new {@link News} object with the title, sectionName, imageUrl
-                        // and webUrl from the JSON response. Add it to the list of news.
-                        newsList.add(new News(title, sectionName, imageUrl, webUrl));
                     }
+                    reader.endObject();
+                } else {
+                    reader.skipValue();
                 }
             }
-        } catch (JSONException e) {
+            reader.endObject();
+        } catch (IOException | IllegalStateException e) {
             // If an error is thrown when executing any of the above statements in the "try" block,
             // catch the exception here, so the app doesn't crash. Print a log message
             // with the message from the exception.
             Log.e(LOG_TAG, "Problem parsing the news JSON results", e);
+        } finally {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                Log.e(LOG_TAG, "Problem closing the news JSON reader", e);
+            }
         }
         // Return the list of news
         return newsList;
     }
 
+    /**
+     * Read a single result of the JSON response and return it as a {@link News} object.
+     */
+    private static News readNews(JsonReader reader, NewsProjection projection) throws IOException {
+        // Handle the case if there is no title, section name, webUrl or image
+        String title = "No title found";
+        String sectionName = "No section name found";
+        String webUrl = "No website link found";
+        String imageUrl = "No image found";
+        // The trail text is only present if the projection requested it
+        String rawTrailText = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (KEY_WEB_TITLE.equals(name)) {
+                title = reader.nextString();
+            } else if (KEY_SECTION_NAME.equals(name)) {
+                sectionName = reader.nextString();
+            } else if (KEY_WEB_URL.equals(name)) {
+                webUrl = reader.nextString();
+            } else if (KEY_FIELDS.equals(name)) {
+                // Read the optional fields of the projection in the object "fields"
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String field = reader.nextName();
+                    if (!projection.hasField(field)) {
+                        reader.skipValue();
+                    } else if (KEY_THUMBNAIL.equals(field)) {
+                        imageUrl = reader.nextString();
+                    } else if (KEY_TRAIL_TEXT.equals(field)) {
+                        rawTrailText = reader.nextString();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else {
+                // Metadata the app does not display (id, type, apiUrl, publication date...)
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        // Create a new {@link News} object with the title, sectionName, imageUrl,
+        // webUrl and trail text from the JSON response.
+        return new News(title, sectionName, imageUrl, webUrl, rawTrailText);
+    }
+
     /**
      * Returns new URL object from the given string URL.
      */
@@ -217,9 +278,10 @@ public final class NewsUtils {
     }
 
     /**
-     * Query the Guardian API and return a list of {@link News} objects.
+     * Query the Guardian API and return a list of {@link News} objects, reading only
+     * the optional fields of the given projection.
      */
-    public static List<News> fetchNewsData(String requestUrl) {
+    public static List<News> fetchNewsData(String requestUrl, NewsProjection projection) {
         // Create URL object
         URL url = createUrl(requestUrl);
 
@@ -230,7 +292,7 @@ public final class NewsUtils {
         } catch (IOException e) {
             Log.e(LOG_TAG, "Problem making the HTTP request.", e);
         }
-        return extractFeatureFromJson(jsonResponse);
+        return extractFeatureFromJson(jsonResponse, projection);
     }
 }
 
@@ -0,0 +1,87 @@
+package com.example.android.newsup;
+
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Records the marks of a cold start (start, first frame and first content) and logs them
+ * once the first content is displayed. Only active in debug builds.
+ *
+ * The start mark is the process start where the system provides it (Android N and above),
+ * otherwise the creation of the Application. Both are logged under their own name, as the
+ * second one misses the process fork and the application bind and is not comparable.
+ */
+public final class StartupTrace {
+
+    /** Tag for the log messages, can be filtered with "adb logcat -s StartupTrace" */
+    private static final String LOG_TAG = StartupTrace.class.getSimpleName();
+
+    // Names of the start mark
+    private static final String MARK_PROCESS_START = "processStart";
+    private static final String MARK_APP_CREATE = "appCreate";
+
+    // Name of the recorded start mark, null if not recorded yet
+    private static String sStartMarkName;
+
+    // Marks in milliseconds of uptime, 0 means not recorded yet
+    private static long sStart;
+    private static long sFirstFrame;
+    private static long sFirstContent;
+
+    /**
+     * Create a private constructor because no one should ever create a {@link StartupTrace}
+     * object. This class is only meant to hold static variables and methods.
+     */
+    private StartupTrace() {
+    }
+
+    public static boolean isEnabled() {
+        return BuildConfig.DEBUG;
+    }
+
+    /**
+     * Records the start mark. Called from {@link NewsApplication#onCreate()}.
+     */
+    public static synchronized void markStart() {
+        if (!isEnabled() || sStartMarkName != null) {
+            return;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            sStart = Process.getStartUptimeMillis();
+            sStartMarkName = MARK_PROCESS_START;
+        } else {
+            sStart = SystemClock.uptimeMillis();
+            sStartMarkName = MARK_APP_CREATE;
+        }
+        Log.i(LOG_TAG, "Start mark: " + sStartMarkName);
+    }
+
+    /**
+     * Records the first frame drawn by {@link NewsActivity}.
+     */
+    public static synchronized void markFirstFrame() {
+        if (!isEnabled() || sFirstFrame != 0) {
+            return;
+        }
+        sFirstFrame = SystemClock.uptimeMillis();
+        Log.i(LOG_TAG, "First frame: " + (sFirstFrame - sStart) + "ms after " + sStartMarkName);
+    }
+
+    /**
+     * Records the first time news are displayed and logs the whole trace.
+     *
+     * @return true if this call recorded the mark, false if it was already recorded
+     */
+    public static synchronized boolean markFirstContent() {
+        if (!isEnabled() || sFirstContent != 0) {
+            return false;
+        }
+        sFirstContent = SystemClock.uptimeMillis();
+        Log.i(LOG_TAG, "Startup trace: " + sStartMarkName + "=0ms firstFrame="
+                + (sFirstFrame == 0 ? "n/a" : (sFirstFrame - sStart) + "ms")
+                + " firstContent=" + (sFirstContent - sStart) + "ms");
+        return true;
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.android.newsup;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process fake of the Guardian API "search" endpoint, so that the fetch and parse
+ * pipeline can be exercised without network access or the rate-limited "test" key.
+ * Payload size, latency, bandwidth, error injection and 304/429 behaviour are all
+ * configurable through the setters before (or while) the server is running.
+ *
+ * Like the real API, the optional "fields" of each result only contain what the
+ * "show-fields" parameter asked for ("all" returns every field, including the body).
+ */
+public class MockGuardianServer {
+
+    /** Path of the fake endpoint, mirroring https://content.guardianapis.com/search */
+    public static final String SEARCH_PATH = "/search";
+
+    // ETag returned with every successful response
+    private static final String ETAG = "\"newsup-mock\"";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private HttpServer mServer;
+
+    // Threads handling the requests
+    private ExecutorService mExecutor;
+
+    // Number of results returned in each response
+    private volatile int mResultCount = 10;
+
+    // Size in characters of the padding added to each result to inflate the payload
+    private volatile int mPaddingPerResult = 0;
+
+    // Delay before the first byte is sent, in milliseconds
+    private volatile int mLatencyMs = 0;
+
+    // Maximum transfer rate of the body, in bytes per second (0 means unlimited)
+    private volatile int mBytesPerSecond = 0;
+
+    // Probability (between 0 and 1) that a request is answered with a 500
+    private volatile double mErrorRate = 0;
+
+    // Every n-th request is answered with a 429 (0 means never)
+    private volatile int mRateLimitEvery = 0;
+
+    // Whether a matching If-None-Match header is answered with a 304
+    private volatile boolean mHonorEtag = false;
+
+    // Size in characters of the body field, only returned with "show-fields=all"
+    private volatile int mBodySize = 5000;
+
+    private final Random mRandom = new Random(42);
+
+    // Counters per response code
+    private final AtomicInteger mRequestCount = new AtomicInteger();
+    private final AtomicInteger mOkCount = new AtomicInteger();
+    private final AtomicInteger mNotModifiedCount = new AtomicInteger();
+    private final AtomicInteger mTooManyRequestsCount = new AtomicInteger();
+    private final AtomicInteger mErrorCount = new AtomicInteger();
+
+    // Number of body bytes sent, headers excluded
+    private final AtomicLong mBytesSent = new AtomicLong();
+
+    /**
+     * Starts the server on a free port of the loopback interface.
+     */
+    public void start() throws IOException {
+        mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        mServer.createContext(SEARCH_PATH, new SearchHandler());
+        mExecutor = Executors.newCachedThreadPool();
+        mServer.setExecutor(mExecutor);
+        mServer.start();
+    }
+
+    public void stop() {
+        if (mServer != null) {
+            mServer.stop(0);
+            mServer = null;
+        }
+        if (mExecutor != null) {
+            mExecutor.shutdownNow();
+            mExecutor = null;
+        }
+    }
+
+    /**
+     * Returns the base URL of the fake search endpoint, to be used in place of the
+     * Guardian QUERY_URL.
+     */
+    public String getSearchUrl() {
+        return "http://127.0.0.1:" + mServer.getAddress().getPort() + SEARCH_PATH;
+    }
+
+    public void setResultCount(int resultCount) {
+        mResultCount = resultCount;
+    }
+
+    public void setPaddingPerResult(int paddingPerResult) {
+        mPaddingPerResult = paddingPerResult;
+    }
+
+    public void setLatencyMs(int latencyMs) {
+        mLatencyMs = latencyMs;
+    }
+
+    public void setBytesPerSecond(int bytesPerSecond) {
+        mBytesPerSecond = bytesPerSecond;
+    }
+
+    public void setErrorRate(double errorRate) {
+        mErrorRate = errorRate;
+    }
+
+    public void setRateLimitEvery(int rateLimitEvery) {
+        mRateLimitEvery = rateLimitEvery;
+    }
+
+    public void setHonorEtag(boolean honorEtag) {
+        mHonorEtag = honorEtag;
+    }
+
+    public void setBodySize(int bodySize) {
+        mBodySize = bodySize;
+    }
+
+    public int getRequestCount() {
+        return mRequestCount.get();
+    }
+
+    public int getOkCount() {
+        return mOkCount.get();
+    }
+
+    public int getNotModifiedCount() {
+        return mNotModifiedCount.get();
+    }
+
+    public int getTooManyRequestsCount() {
+        return mTooManyRequestsCount.get();
+    }
+
+    public int getErrorCount() {
+        return mErrorCount.get();
+    }
+
+    public long getBytesSent() {
+        return mBytesSent.get();
+    }
+
+    /**
+     * Builds a JSON body with the same shape as a Guardian search response.
+     *
+     * @param showFields is the value of the "show-fields" parameter, or null
+     */
+    public String buildBody(int resultCount, int paddingPerResult, String showFields) {
+        Set<String> fields;
+        if (showFields == null) {
+            fields = Collections.emptySet();
+        } else if ("all".equals(showFields)) {
+            fields = new HashSet<>(Arrays.asList(NewsProjection.FIELD_THUMBNAIL,
+                    NewsProjection.FIELD_TRAIL_TEXT, "byline", "body"));
+        } else {
+            fields = new HashSet<>(Arrays.asList(showFields.split(",")));
+        }
+        String padding = repeat('x', paddingPerResult);
+        String articleBody = fields.contains("body") ? "<p>" + repeat('b', mBodySize) + "</p>" : null;
+
+        StringBuilder body = new StringBuilder();
+        body.append("{\"response\":{\"status\":\"ok\",\"userTier\":\"developer\",\"total\":")
+                .append(resultCount)
+                .append(",\"startIndex\":1,\"pageSize\":").append(resultCount)
+                .append(",\"currentPage\":1,\"pages\":1,\"orderBy\":\"relevance\",\"results\":[");
+        for (int i = 0; i < resultCount; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            // Same per-result metadata as the real API, whether the app uses it or not
+            body.append("{\"id\":\"politics/mock-").append(i).append('"')
+                    .append(",\"type\":\"article\"")
+                    .append(",\"sectionId\":\"politics\"")
+                    .append(",\"sectionName\":\"Politics\"")
+                    .append(",\"webPublicationDate\":\"2017-06-19T10:00:00Z\"")
+                    .append(",\"webTitle\":\"Mock news ").append(i).append('"')
+                    .append(",\"webUrl\":\"https://www.theguardian.com/politics/mock-").append(i).append('"')
+                    .append(",\"apiUrl\":\"https://content.guardianapis.com/politics/mock-").append(i).append('"')
+                    .append(",\"isHosted\":false")
+                    .append(",\"pillarId\":\"pillar/news\"")
+                    .append(",\"pillarName\":\"News\"")
+                    .append(",\"padding\":\"").append(padding).append('"');
+            if (!fields.isEmpty()) {
+                body.append(",\"fields\":{");
+                String separator = "";
+                if (fields.contains(NewsProjection.FIELD_THUMBNAIL)) {
+                    body.append("\"thumbnail\":\"https://media.guim.co.uk/mock-").append(i).append(".jpg\"");
+                    separator = ",";
+                }
+                if (fields.contains(NewsProjection.FIELD_TRAIL_TEXT)) {
+                    body.append(separator)
+                            .append("\"trailText\":\"<strong>Mock</strong> trail text &amp; summary ")
+                            .append(i).append('"');
+                    separator = ",";
+                }
+                if (fields.contains("byline")) {
+                    body.append(separator).append("\"byline\":\"Mock Writer ").append(i).append('"');
+                    separator = ",";
+                }
+                if (articleBody != null) {
+                    body.append(separator).append("\"body\":\"").append(articleBody).append('"');
+                }
+                body.append('}');
+            }
+            body.append('}');
+        }
+        body.append("]}}");
+        return body.toString();
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder builder = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns the decoded value of a query parameter, or null if it is absent.
+     */
+    private static String getQueryParameter(String query, String name) throws IOException {
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0 && pair.substring(0, equals).equals(name)) {
+                return URLDecoder.decode(pair.substring(equals + 1), "UTF-8");
+            }
+        }
+        return null;
+    }
+
+    private class SearchHandler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            int requestNumber = mRequestCount.incrementAndGet();
+            try {
+                sleep(mLatencyMs);
+
+                if (mRateLimitEvery > 0 && requestNumber % mRateLimitEvery == 0) {
+                    mTooManyRequestsCount.incrementAndGet();
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    exchange.sendResponseHeaders(429, -1);
+                    return;
+                }
+
+                boolean fail;
+                synchronized (mRandom) {
+                    fail = mRandom.nextDouble() < mErrorRate;
+                }
+                if (fail) {
+                    mErrorCount.incrementAndGet();
+                    exchange.sendResponseHeaders(500, -1);
+                    return;
+                }
+
+                if (mHonorEtag && ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    mNotModifiedCount.incrementAndGet();
+                    exchange.getResponseHeaders().set("ETag", ETAG);
+                    exchange.sendResponseHeaders(304, -1);
+                    return;
+                }
+
+                String showFields = getQueryParameter(exchange.getRequestURI().getRawQuery(), "show-fields");
+                byte[] body = buildBody(mResultCount, mPaddingPerResult, showFields).getBytes(UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+                exchange.getResponseHeaders().set("ETag", ETAG);
+                // Counted before writing, so the counters are up to date once the client
+                // has read the body
+                mBytesSent.addAndGet(body.length);
+                mOkCount.incrementAndGet();
+                exchange.sendResponseHeaders(200, body.length);
+                writeThrottled(exchange.getResponseBody(), body);
+            } finally {
+                exchange.close();
+            }
+        }
+
+        /**
+         * Writes the body in chunks, sleeping between them so that the average rate
+         * stays under the configured bandwidth.
+         */
+        private void writeThrottled(OutputStream out, byte[] body) throws IOException {
+            int bytesPerSecond = mBytesPerSecond;
+            if (bytesPerSecond <= 0) {
+                out.write(body);
+                out.flush();
+                return;
+            }
+            // Ten chunks per second
+            int chunkSize = Math.max(1, bytesPerSecond / 10);
+            for (int offset = 0; offset < body.length; offset += chunkSize) {
+                int length = Math.min(chunkSize, body.length - offset);
+                out.write(body, offset, length);
+                out.flush();
+                sleep((int) (length * 1000L / bytesPerSecond));
+            }
+        }
+
+        private void sleep(int millis) {
+            if (millis <= 0) {
+                return;
+            }
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
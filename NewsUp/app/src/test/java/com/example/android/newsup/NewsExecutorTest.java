@@ -0,0 +1,163 @@
+package com.example.android.newsup;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the ordering, bounding and statistics of {@link NewsExecutor}.
+ * Each test blocks the single worker first, so that the next tasks wait in the queue.
+ */
+public class NewsExecutorTest {
+
+    private NewsExecutor mExecutor;
+
+    // Released to let the blocking task finish
+    private final CountDownLatch mRelease = new CountDownLatch(1);
+
+    // Names of the tasks in the order they ran
+    private final List<String> mRunOrder = Collections.synchronizedList(new ArrayList<String>());
+
+    @After
+    public void tearDown() throws Exception {
+        mRelease.countDown();
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void submit_runsHigherPriorityFirst_thenInSubmissionOrder() throws Exception {
+        mExecutor = new NewsExecutor(1, 16);
+        blockWorker();
+        CountDownLatch done = new CountDownLatch(4);
+
+        mExecutor.submit(NewsExecutor.PRIORITY_BACKGROUND, new NamedTask("A", done));
+        mExecutor.submit(NewsExecutor.PRIORITY_USER, new NamedTask("B", done));
+        mExecutor.submit(NewsExecutor.PRIORITY_BACKGROUND, new NamedTask("C", done));
+        mExecutor.submit(NewsExecutor.PRIORITY_USER, new NamedTask("D", done));
+        mRelease.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("B", "D", "A", "C"), mRunOrder);
+    }
+
+    @Test
+    public void submit_fullQueue_rejectsTaskWhateverItsPriority() throws Exception {
+        mExecutor = new NewsExecutor(1, 2);
+        blockWorker();
+
+        Future<String> first = mExecutor.submit(NewsExecutor.PRIORITY_BACKGROUND,
+                new NamedTask("A", null));
+        Future<String> second = mExecutor.submit(NewsExecutor.PRIORITY_BACKGROUND,
+                new NamedTask("B", null));
+        int rejected = 0;
+        try {
+            mExecutor.submit(NewsExecutor.PRIORITY_USER, new NamedTask("C", null));
+        } catch (RejectedExecutionException e) {
+            rejected++;
+        }
+        try {
+            mExecutor.submit(NewsExecutor.PRIORITY_BACKGROUND, new NamedTask("D", null));
+        } catch (RejectedExecutionException e) {
+            rejected++;
+        }
+
+        // The queued tasks are kept, even for a task of higher priority
+        assertEquals(2, rejected);
+        assertFalse(first.isCancelled());
+        assertFalse(second.isCancelled());
+        assertEquals(2, mExecutor.getStats().rejectedCount);
+        assertEquals(2, mExecutor.getStats().queueDepth);
+    }
+
+    @Test
+    public void cancel_freesQueueSlot_andIsNotCountedAsExecuted() throws Exception {
+        mExecutor = new NewsExecutor(1, 1);
+        blockWorker();
+        CountDownLatch done = new CountDownLatch(1);
+
+        Future<String> cancelled = mExecutor.submit(NewsExecutor.PRIORITY_USER,
+                new NamedTask("A", null));
+        assertTrue(mExecutor.cancel(cancelled));
+        assertEquals(0, mExecutor.getStats().queueDepth);
+
+        // The slot of the cancelled task is free again
+        mExecutor.submit(NewsExecutor.PRIORITY_USER, new NamedTask("B", done));
+        mRelease.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList("B"), mRunOrder);
+        // The blocking task and B
+        assertEquals(2, mExecutor.getStats().executedCount);
+        assertEquals(0, mExecutor.getStats().rejectedCount);
+    }
+
+    @Test
+    public void getStats_recordsQueueDepthAndWaitTime() throws Exception {
+        mExecutor = new NewsExecutor(1, 16);
+        blockWorker();
+        CountDownLatch done = new CountDownLatch(3);
+
+        for (int i = 0; i < 3; i++) {
+            mExecutor.submit(NewsExecutor.PRIORITY_USER, new NamedTask("T" + i, done));
+        }
+        assertEquals(3, mExecutor.getStats().queueDepth);
+        Thread.sleep(50);
+        mRelease.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        NewsExecutor.Stats stats = mExecutor.getStats();
+        assertEquals(0, stats.queueDepth);
+        assertEquals(3, stats.maxQueueDepth);
+        assertEquals(4, stats.executedCount);
+        assertTrue(stats.maxWaitMs >= 50);
+        assertTrue(stats.averageWaitMs <= stats.maxWaitMs);
+    }
+
+    /**
+     * Occupies the single worker until {@link #mRelease} is counted down.
+     */
+    private void blockWorker() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        mExecutor.submit(NewsExecutor.PRIORITY_USER, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                started.countDown();
+                mRelease.await();
+                return null;
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    // Records its name when it runs
+    private class NamedTask implements Callable<String> {
+
+        private final String mName;
+        private final CountDownLatch mDone;
+
+        NamedTask(String name, CountDownLatch done) {
+            mName = name;
+            mDone = done;
+        }
+
+        @Override
+        public String call() {
+            mRunOrder.add(mName);
+            if (mDone != null) {
+                mDone.countDown();
+            }
+            return mName;
+        }
+    }
+}
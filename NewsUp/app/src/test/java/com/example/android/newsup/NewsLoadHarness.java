@@ -0,0 +1,207 @@
+package com.example.android.newsup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives {@link NewsUtils#fetchNewsData(String, NewsProjection)} from several threads at once
+ * and reports the throughput and the latency percentiles of the whole fetch and parse pipeline.
+ * The requests are either made directly by the calling threads, or queued on a
+ * {@link NewsExecutor} like the loader does, so that the queueing is part of the latency.
+ *
+ * {@link #main(String[])} runs both modes against a throttled {@link MockGuardianServer}
+ * and prints the reports.
+ */
+public class NewsLoadHarness {
+
+    private final String mQueryUrl;
+    private final int mThreadCount;
+    private final int mRequestsPerThread;
+
+    /**
+     * Constructs a new {@link NewsLoadHarness}.
+     *
+     * @param queryUrl is the url requested by every call
+     * @param threadCount is the number of concurrent callers
+     * @param requestsPerThread is the number of calls made by each caller
+     */
+    public NewsLoadHarness(String queryUrl, int threadCount, int requestsPerThread) {
+        mQueryUrl = queryUrl;
+        mThreadCount = threadCount;
+        mRequestsPerThread = requestsPerThread;
+    }
+
+    public static void main(String[] args) throws Exception {
+        MockGuardianServer server = new MockGuardianServer();
+        server.setResultCount(50);
+        server.setPaddingPerResult(512);
+        server.setLatencyMs(20);
+        server.setBytesPerSecond(512 * 1024);
+        server.start();
+        try {
+            NewsLoadHarness harness = new NewsLoadHarness(server.getSearchUrl(), 4, 4);
+            System.out.println("Direct:   " + harness.run());
+            NewsExecutor executor = NewsExecutor.getInstance();
+            System.out.println("Executor: " + harness.runThroughExecutor(executor));
+            System.out.println("Executor stats: " + executor.getStats());
+            executor.shutdownNow();
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * Runs the load with each caller making its requests itself, one after the other,
+     * and blocks until every call has completed.
+     */
+    public Report run() throws Exception {
+        return run(null);
+    }
+
+    /**
+     * Runs the load with each caller queuing all its requests at once on the given executor,
+     * with the user priority, and blocks until every call has completed. The latency of a
+     * request includes its wait in the queue, a rejected request counts as an empty result.
+     */
+    public Report runThroughExecutor(NewsExecutor newsExecutor) throws Exception {
+        return run(newsExecutor);
+    }
+
+    private Report run(final NewsExecutor newsExecutor) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(mThreadCount);
+        List<Future<List<long[]>>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int t = 0; t < mThreadCount; t++) {
+            futures.add(executor.submit(new Callable<List<long[]>>() {
+                @Override
+                public List<long[]> call() throws Exception {
+                    return newsExecutor == null ? fetchDirectly() : fetchThrough(newsExecutor);
+                }
+            }));
+        }
+
+        List<Long> latencies = new ArrayList<>();
+        int emptyCount = 0;
+        long newsCount = 0;
+        for (Future<List<long[]>> future : futures) {
+            for (long[] sample : future.get()) {
+                latencies.add(sample[0]);
+                newsCount += sample[1];
+                if (sample[1] == 0) {
+                    emptyCount++;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        Collections.sort(latencies);
+        return new Report(latencies, elapsed, newsCount, emptyCount);
+    }
+
+    // Each sample is {latency in nanoseconds, number of news parsed}
+    private List<long[]> fetchDirectly() {
+        List<long[]> samples = new ArrayList<>();
+        for (int i = 0; i < mRequestsPerThread; i++) {
+            long begin = System.nanoTime();
+            List<News> news = NewsUtils.fetchNewsData(mQueryUrl, NewsProjection.LIST);
+            long latency = System.nanoTime() - begin;
+            samples.add(new long[]{latency, news == null ? 0 : news.size()});
+        }
+        return samples;
+    }
+
+    private List<long[]> fetchThrough(NewsExecutor newsExecutor) throws Exception {
+        List<long[]> samples = new ArrayList<>();
+        List<Future<long[]>> queued = new ArrayList<>();
+        for (int i = 0; i < mRequestsPerThread; i++) {
+            final long begin = System.nanoTime();
+            try {
+                queued.add(newsExecutor.submit(NewsExecutor.PRIORITY_USER,
+                        new Callable<long[]>() {
+                            @Override
+                            public long[] call() {
+                                List<News> news = NewsUtils.fetchNewsData(mQueryUrl,
+                                        NewsProjection.LIST);
+                                long latency = System.nanoTime() - begin;
+                                return new long[]{latency, news == null ? 0 : news.size()};
+                            }
+                        }));
+            } catch (RejectedExecutionException e) {
+                samples.add(new long[]{System.nanoTime() - begin, 0});
+            }
+        }
+        for (Future<long[]> future : queued) {
+            samples.add(future.get());
+        }
+        return samples;
+    }
+
+    /**
+     * Result of a {@link NewsLoadHarness} run. Latencies are sorted in ascending order.
+     */
+    public static class Report {
+
+        private final List<Long> mLatenciesNs;
+        private final long mElapsedNs;
+        private final long mNewsCount;
+        private final int mEmptyCount;
+
+        Report(List<Long> latenciesNs, long elapsedNs, long newsCount, int emptyCount) {
+            mLatenciesNs = latenciesNs;
+            mElapsedNs = elapsedNs;
+            mNewsCount = newsCount;
+            mEmptyCount = emptyCount;
+        }
+
+        public int getRequestCount() {
+            return mLatenciesNs.size();
+        }
+
+        public long getNewsCount() {
+            return mNewsCount;
+        }
+
+        // Number of calls which returned no news (error, rate limit, empty body...)
+        public int getEmptyCount() {
+            return mEmptyCount;
+        }
+
+        public double getThroughputPerSecond() {
+            return mLatenciesNs.size() / (mElapsedNs / 1e9);
+        }
+
+        /**
+         * Returns the latency in milliseconds at the given percentile (between 0 and 100),
+         * using the nearest-rank method.
+         */
+        public double getPercentileMs(double percentile) {
+            if (mLatenciesNs.isEmpty()) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100.0 * mLatenciesNs.size());
+            int index = Math.min(Math.max(rank - 1, 0), mLatenciesNs.size() - 1);
+            return mLatenciesNs.get(index) / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%d requests, %d empty, %.1f req/s, p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms",
+                    getRequestCount(), mEmptyCount, getThroughputPerSecond(),
+                    getPercentileMs(50), getPercentileMs(90), getPercentileMs(99),
+                    getPercentileMs(100));
+        }
+    }
+}
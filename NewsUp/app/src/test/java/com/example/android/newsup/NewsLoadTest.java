@@ -0,0 +1,176 @@
+package com.example.android.newsup;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * End-to-end tests of the fetch and parse pipeline against {@link MockGuardianServer}.
+ * They run on the development machine (host) and need no network access.
+ */
+public class NewsLoadTest {
+
+    private MockGuardianServer mServer;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer = new MockGuardianServer();
+        mServer.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mServer.stop();
+    }
+
+    @Test
+    public void fetchNewsData_parsesMockResponse() throws Exception {
+        mServer.setResultCount(10);
+
+        List<News> news = NewsUtils.fetchNewsData(
+                mServer.getSearchUrl() + "?show-fields=" + NewsProjection.LIST.getShowFields(),
+                NewsProjection.LIST);
+
+        assertEquals(10, news.size());
+        assertEquals("Mock news 0", news.get(0).getTitle());
+        assertEquals("Politics", news.get(0).getSectionName());
+        assertEquals("https://media.guim.co.uk/mock-0.jpg", news.get(0).getImageUrl());
+        assertNull(news.get(0).getRawTrailText());
+    }
+
+    @Test
+    public void listProjection_sendsNoMoreBytesPerResultThanBaselineQuery() throws Exception {
+        mServer.setResultCount(20);
+
+        // The app requested "show-fields=thumbnail" before the projection
+        NewsUtils.fetchNewsData(mServer.getSearchUrl() + "?show-fields="
+                + NewsProjection.FIELD_THUMBNAIL, NewsProjection.LIST);
+        long baselineBytes = mServer.getBytesSent();
+        NewsUtils.fetchNewsData(mServer.getSearchUrl() + "?show-fields="
+                + NewsProjection.LIST.getShowFields(), NewsProjection.LIST);
+        long listBytes = mServer.getBytesSent() - baselineBytes;
+        long baselineBytesPerResult = baselineBytes / 20;
+        long listBytesPerResult = listBytes / 20;
+
+        assertTrue(baselineBytesPerResult > 0);
+        assertTrue("LIST " + listBytesPerResult + " bytes/result, baseline "
+                        + baselineBytesPerResult + " bytes/result",
+                listBytesPerResult <= baselineBytesPerResult);
+    }
+
+    @Test
+    public void fetchNewsData_serverError_returnsNull() throws Exception {
+        mServer.setErrorRate(1);
+
+        List<News> news = NewsUtils.fetchNewsData(mServer.getSearchUrl(), NewsProjection.LIST);
+
+        assertNull(news);
+        assertEquals(1, mServer.getErrorCount());
+    }
+
+    @Test
+    public void fetchNewsData_rateLimited_returnsNull() throws Exception {
+        mServer.setRateLimitEvery(1);
+
+        List<News> news = NewsUtils.fetchNewsData(mServer.getSearchUrl(), NewsProjection.LIST);
+
+        assertNull(news);
+        assertEquals(1, mServer.getTooManyRequestsCount());
+    }
+
+    @Test
+    public void server_matchingEtag_returnsNotModified() throws Exception {
+        mServer.setHonorEtag(true);
+        URL url = new URL(mServer.getSearchUrl());
+
+        HttpURLConnection first = (HttpURLConnection) url.openConnection();
+        assertEquals(200, first.getResponseCode());
+        String etag = first.getHeaderField("ETag");
+        first.getInputStream().close();
+        first.disconnect();
+        assertNotNull(etag);
+
+        HttpURLConnection second = (HttpURLConnection) url.openConnection();
+        second.setRequestProperty("If-None-Match", etag);
+        assertEquals(304, second.getResponseCode());
+        second.disconnect();
+
+        assertEquals(1, mServer.getOkCount());
+        assertEquals(1, mServer.getNotModifiedCount());
+    }
+
+    @Test
+    public void loadHarness_reportsEveryRequest() throws Exception {
+        mServer.setResultCount(50);
+        mServer.setPaddingPerResult(512);
+        mServer.setLatencyMs(20);
+        mServer.setBytesPerSecond(512 * 1024);
+
+        NewsLoadHarness.Report report =
+                new NewsLoadHarness(mServer.getSearchUrl(), 4, 5).run();
+
+        assertEquals(20, report.getRequestCount());
+        assertEquals(20 * 50, report.getNewsCount());
+        assertEquals(0, report.getEmptyCount());
+        assertTrue(report.getPercentileMs(50) >= 20);
+        assertTrue(report.getPercentileMs(50) <= report.getPercentileMs(99));
+    }
+
+    @Test
+    public void loadHarness_throughExecutor_includesQueueWait() throws Exception {
+        mServer.setResultCount(10);
+        mServer.setLatencyMs(50);
+        NewsExecutor executor = new NewsExecutor(1, 16);
+
+        try {
+            NewsLoadHarness.Report report =
+                    new NewsLoadHarness(mServer.getSearchUrl(), 2, 3).runThroughExecutor(executor);
+
+            assertEquals(6, report.getRequestCount());
+            assertEquals(6 * 10, report.getNewsCount());
+            assertEquals(0, report.getEmptyCount());
+            assertEquals(6, executor.getStats().executedCount);
+            // A single worker runs the six requests one after the other: the last ones
+            // wait in the queue for several server round trips
+            assertTrue(report.getPercentileMs(100) >= 3 * 50);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void loadHarness_throughFullExecutor_countsRejectedRequestsAsEmpty() throws Exception {
+        mServer.setLatencyMs(50);
+        NewsExecutor executor = new NewsExecutor(1, 1);
+
+        try {
+            // One request runs, one waits and the third one is rejected
+            NewsLoadHarness.Report report =
+                    new NewsLoadHarness(mServer.getSearchUrl(), 1, 3).runThroughExecutor(executor);
+
+            assertEquals(3, report.getRequestCount());
+            assertEquals(1, report.getEmptyCount());
+            assertEquals(1, executor.getStats().rejectedCount);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void loadHarness_withInjectedErrors_countsEmptyResults() throws Exception {
+        mServer.setRateLimitEvery(4);
+
+        NewsLoadHarness.Report report =
+                new NewsLoadHarness(mServer.getSearchUrl(), 2, 4).run();
+
+        assertEquals(8, report.getRequestCount());
+        assertEquals(mServer.getTooManyRequestsCount(), report.getEmptyCount());
+        assertEquals(2, report.getEmptyCount());
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.android.newsup;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the streaming parse of {@link NewsUtils}, compared with the org.json parser
+ * it replaced.
+ */
+public class NewsUtilsTest {
+
+    // Body of the request the app sent before the projection: "show-fields=thumbnail"
+    private final String mBaselineBody =
+            new MockGuardianServer().buildBody(50, 0, NewsProjection.FIELD_THUMBNAIL);
+
+    @Test
+    public void extractFeatureFromJson_readsProjectedFields() {
+        String body = new MockGuardianServer().buildBody(3, 0, "all");
+        NewsProjection withTrailText = new NewsProjection(new String[]{
+                NewsProjection.FIELD_THUMBNAIL, NewsProjection.FIELD_TRAIL_TEXT}, new String[0]);
+
+        List<News> news = NewsUtils.extractFeatureFromJson(body, withTrailText);
+
+        assertEquals(3, news.size());
+        assertEquals("Mock news 2", news.get(2).getTitle());
+        assertEquals("Politics", news.get(2).getSectionName());
+        assertEquals("https://www.theguardian.com/politics/mock-2", news.get(2).getWebUrl());
+        assertEquals("https://media.guim.co.uk/mock-2.jpg", news.get(2).getImageUrl());
+        assertEquals("<strong>Mock</strong> trail text &amp; summary 2",
+                news.get(2).getRawTrailText());
+    }
+
+    @Test
+    public void extractFeatureFromJson_skipsFieldsOutsideProjection() {
+        String body = new MockGuardianServer().buildBody(3, 0, "all");
+
+        List<News> news = NewsUtils.extractFeatureFromJson(body, NewsProjection.LIST);
+
+        assertEquals(3, news.size());
+        assertEquals("https://media.guim.co.uk/mock-0.jpg", news.get(0).getImageUrl());
+        assertNull(news.get(0).getRawTrailText());
+    }
+
+    @Test
+    public void extractFeatureFromJson_missingValues_useDefaults() {
+        String body = "{\"response\":{\"results\":[{\"id\":\"politics/mock-0\"}]}}";
+
+        List<News> news = NewsUtils.extractFeatureFromJson(body, NewsProjection.LIST);
+
+        assertEquals(1, news.size());
+        assertEquals("No title found", news.get(0).getTitle());
+        assertEquals("No section name found", news.get(0).getSectionName());
+        assertEquals("No website link found", news.get(0).getWebUrl());
+        assertEquals("No image found", news.get(0).getImageUrl());
+    }
+
+    @Test
+    public void extractFeatureFromJson_emptyOrMalformed() {
+        assertNull(NewsUtils.extractFeatureFromJson("", NewsProjection.LIST));
+        assertTrue(NewsUtils.extractFeatureFromJson("{\"response\":", NewsProjection.LIST).isEmpty());
+    }
+
+    @Test
+    public void extractFeatureFromJson_matchesOldParserOnBaselineBody() throws Exception {
+        List<News> expected = OrgJsonNewsParser.extractFeatureFromJson(mBaselineBody);
+        List<News> actual = NewsUtils.extractFeatureFromJson(mBaselineBody, NewsProjection.LIST);
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getTitle(), actual.get(i).getTitle());
+            assertEquals(expected.get(i).getSectionName(), actual.get(i).getSectionName());
+            assertEquals(expected.get(i).getImageUrl(), actual.get(i).getImageUrl());
+            assertEquals(expected.get(i).getWebUrl(), actual.get(i).getWebUrl());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.android.newsup;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The org.json parser of NewsUtils before the streaming parse, which builds every result
+ * as a JSONObject. Kept in the tests as the reference for the comparisons.
+ */
+final class OrgJsonNewsParser {
+
+    private OrgJsonNewsParser() {
+    }
+
+    static List<News> extractFeatureFromJson(String newsJSON) throws JSONException {
+        List<News> newsList = new ArrayList<>();
+        JSONObject baseJsonResponse = new JSONObject(newsJSON);
+        if (baseJsonResponse.has("response")) {
+            JSONObject responseObject = baseJsonResponse.getJSONObject("response");
+            if (responseObject.has("results")) {
+                JSONArray newsArray = responseObject.getJSONArray("results");
+                for (int i = 0; i < newsArray.length(); i++) {
+                    JSONObject currentNews = newsArray.getJSONObject(i);
+                    String title = currentNews.has("webTitle")
+                            ? currentNews.getString("webTitle") : "No title found";
+                    String sectionName = currentNews.has("sectionName")
+                            ? currentNews.getString("sectionName") : "No section name found";
+                    String webUrl = currentNews.has("webUrl")
+                            ? currentNews.getString("webUrl") : "No website link found";
+                    String imageUrl = "No image found";
+                    if (currentNews.has("fields")) {
+                        JSONObject imageLinks = currentNews.getJSONObject("fields");
+                        if (imageLinks.has("thumbnail")) {
+                            imageUrl = imageLinks.getString("thumbnail");
+                        }
+                    }
+                    newsList.add(new News(title, sectionName, imageUrl, webUrl));
+                }
+            }
+        }
+        return newsList;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.android.newsup;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runnable report of the bytes transferred and the parse time per result, for the query
+ * the app sent before {@link NewsProjection} and for the {@link NewsProjection#LIST} query,
+ * against {@link MockGuardianServer}. It is not part of the unit tests, run it with
+ * the test classpath: java com.example.android.newsup.ProjectionReport
+ *
+ * The parse times are host figures: on the development machine android.util.JsonReader is
+ * the copy of the test sources backed by Gson, not the Android implementation, so they only
+ * compare the streaming parse with the org.json parse on the same JVM.
+ */
+public class ProjectionReport {
+
+    // Number of results in each response
+    private static final int RESULT_COUNT = 50;
+
+    // Number of parses timed in each round, the best round is kept
+    private static final int PARSES_PER_ROUND = 100;
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) throws Exception {
+        MockGuardianServer server = new MockGuardianServer();
+        server.setResultCount(RESULT_COUNT);
+        server.start();
+        try {
+            // The app requested "show-fields=thumbnail" before the projection
+            long baselineBytes = fetchBytes(server, NewsProjection.FIELD_THUMBNAIL);
+            long listBytes = fetchBytes(server, NewsProjection.LIST.getShowFields());
+            System.out.println(String.format(Locale.US,
+                    "Bytes per result: baseline query %d, LIST query %d",
+                    baselineBytes / RESULT_COUNT, listBytes / RESULT_COUNT));
+        } finally {
+            server.stop();
+        }
+
+        final String body = server.buildBody(RESULT_COUNT, 0, NewsProjection.FIELD_THUMBNAIL);
+        long oldNs = bestRoundNs(new Parser() {
+            @Override
+            public List<News> parse() throws Exception {
+                return OrgJsonNewsParser.extractFeatureFromJson(body);
+            }
+        });
+        long newNs = bestRoundNs(new Parser() {
+            @Override
+            public List<News> parse() {
+                return NewsUtils.extractFeatureFromJson(body, NewsProjection.LIST);
+            }
+        });
+        System.out.println(String.format(Locale.US,
+                "Parse time per result (host JVM, Gson backed JsonReader): org.json %.2fus, "
+                        + "streaming %.2fus",
+                oldNs / 1e3 / (PARSES_PER_ROUND * RESULT_COUNT),
+                newNs / 1e3 / (PARSES_PER_ROUND * RESULT_COUNT)));
+    }
+
+    /**
+     * Fetches the mock endpoint with the given "show-fields" value and returns the size
+     * of the body sent.
+     */
+    private static long fetchBytes(MockGuardianServer server, String showFields) {
+        long before = server.getBytesSent();
+        NewsUtils.fetchNewsData(server.getSearchUrl() + "?show-fields=" + showFields,
+                NewsProjection.LIST);
+        return server.getBytesSent() - before;
+    }
+
+    /**
+     * Returns the duration in nanoseconds of the fastest round of parses. The first rounds
+     * also warm up the JIT.
+     */
+    private static long bestRoundNs(Parser parser) throws Exception {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < PARSES_PER_ROUND; i++) {
+                if (parser.parse().size() != RESULT_COUNT) {
+                    throw new IllegalStateException("Unexpected number of results");
+                }
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private interface Parser {
+        List<News> parse() throws Exception;
+    }
+}